@@ -0,0 +1,20 @@
+package com.prog.image.loadtest;
+
+import lombok.Getter;
+
+/**
+ * REST endpoints exercised by the load generator.
+ */
+@Getter
+public enum Endpoint {
+    UPLOAD("/api/images/upload"),
+    RETRIEVE("/api/images/retrieve"),
+    CONVERT_IMAGE("/api/images/convert-image"),
+    CONVERT_FILE("/api/images/convert-file");
+
+    private final String path;
+
+    Endpoint(String path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,158 @@
+package com.prog.image.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builds and sends requests against the image REST API.
+ */
+public class ImageApiClient {
+
+    private static final String[] CONVERT_FORMATS = {"png", "jpg", "bmp"};
+    private static final String BOUNDARY = "----loadtest7d1e4c0b9a6f42e8";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    // Multipart bodies are built once, so the scheduling thread never copies the image per request.
+    // Upload names must be unique, so its body is split around the file name.
+    private final byte[] uploadBodyHead;
+    private final byte[] uploadBodyTail;
+    private final byte[] convertFileBody;
+
+    public ImageApiClient(String baseUrl, int imageSize) throws IOException {
+        this.baseUrl = baseUrl;
+        byte[] sampleImage = syntheticJpeg(imageSize);
+        this.uploadBodyHead = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"").getBytes(StandardCharsets.UTF_8);
+        this.uploadBodyTail = concat((".jpg\"\r\n" + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8),
+                sampleImage, ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        this.convertFileBody = concat(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"convert.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8),
+                sampleImage, ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a request for the given endpoint.
+     * @param endpoint The endpoint to call.
+     * @param storedId The id of a previously uploaded image, used by endpoints that need one.
+     * @param fmt The target format, used by the convert endpoints.
+     * @return The request to send.
+     */
+    public HttpRequest request(Endpoint endpoint, int storedId, String fmt) {
+        switch (endpoint) {
+            case UPLOAD:
+                return multipart(endpoint.getPath(), "POST", HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofByteArray(uploadBodyHead),
+                        HttpRequest.BodyPublishers.ofString(UUID.randomUUID().toString()),
+                        HttpRequest.BodyPublishers.ofByteArray(uploadBodyTail)));
+            case RETRIEVE:
+                return get(endpoint.getPath() + "?id=" + storedId);
+            case CONVERT_IMAGE:
+                return get(endpoint.getPath() + "?id=" + storedId + "&fmt=" + fmt);
+            case CONVERT_FILE:
+                // The API reads the multipart body of a GET request for this endpoint
+                return multipart(endpoint.getPath() + "?fmt=" + fmt, "GET",
+                        HttpRequest.BodyPublishers.ofByteArray(convertFileBody));
+            default:
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+    }
+
+    /**
+     * Picks a conversion target different from the current format, so the service always
+     * decodes and re-encodes instead of returning the stored bytes.
+     * @param currentFmt The format the image is in now.
+     * @param random Source for picking the format.
+     * @return The target format.
+     */
+    public String targetFormat(String currentFmt, Random random) {
+        String fmt;
+        do {
+            fmt = CONVERT_FORMATS[random.nextInt(CONVERT_FORMATS.length)];
+        } while (fmt.equalsIgnoreCase(currentFmt));
+        return fmt;
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Extracts the ids of successfully stored images from an upload response.
+     * @param body The JSON body returned by the upload endpoint.
+     * @return The stored image ids.
+     */
+    public List<Integer> uploadedIds(byte[] body) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(body)) {
+            if ("OK".equals(node.path("status").asText())) {
+                ids.add(node.path("id").asInt());
+            }
+        }
+        return ids;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest multipart(String path, String method, HttpRequest.BodyPublisher body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .method(method, body)
+                .build();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    // Noise over a gradient, so the codecs do comparable work to a real photo.
+    private static byte[] syntheticJpeg(int size) throws IOException {
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int r = (x * 255 / size + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / size + random.nextInt(32)) & 0xFF;
+                int b = random.nextInt(256);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "jpg", out)) {
+            throw new IOException("No JPEG writer available");
+        }
+        return out.toByteArray();
+    }
+}
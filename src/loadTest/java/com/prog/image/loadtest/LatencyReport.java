@@ -0,0 +1,63 @@
+package com.prog.image.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Formats per-endpoint throughput and latency percentiles and checks them against the SLO:
+ * p99 latency of successful requests and the share of requests that failed or were dropped.
+ */
+public class LatencyReport {
+
+    private final StringBuilder text = new StringBuilder();
+    // Stays false when no endpoint saw any traffic, so an empty run cannot pass.
+    private boolean sloMet = false;
+
+    public LatencyReport(LoadTestSettings settings, LoadGenerator generator, long windowNanos) {
+        double seconds = windowNanos / 1e9;
+        text.append("Load test: ").append(settings).append('\n');
+        text.append(String.format("Arrival window %.1f s, drained in-flight requests in %.1f s "
+                + "(req/s counts only successes completed within the window)%n",
+                seconds, generator.getDrainNanos() / 1e9));
+        text.append(String.format("SLO: p99 <= %.1f ms, error rate <= %.2f%%%n%n",
+                settings.getSloP99Ms(), settings.getSloMaxErrorRate() * 100));
+        text.append(String.format("%-14s %8s %7s %7s %8s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "ok", "errors", "dropped", "error %", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "slo"));
+
+        boolean allMet = true;
+        boolean anyTraffic = false;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = generator.latency(endpoint);
+            long count = histogram.getTotalCount();
+            long errors = generator.errors(endpoint);
+            long dropped = generator.dropped(endpoint);
+            if (count == 0 && errors == 0 && dropped == 0) {
+                continue;
+            }
+            anyTraffic = true;
+
+            double p99 = millis(histogram.getValueAtPercentile(99.0));
+            double errorRate = (double) (errors + dropped) / (count + errors + dropped);
+            boolean ok = count > 0 && p99 <= settings.getSloP99Ms() && errorRate <= settings.getSloMaxErrorRate();
+            allMet &= ok;
+            text.append(String.format("%-14s %8d %7d %7d %8.2f %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n",
+                    endpoint.name().toLowerCase(), count, errors, dropped, errorRate * 100, generator.completedInWindow(endpoint) / seconds,
+                    millis(histogram.getValueAtPercentile(50.0)), p99,
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    ok ? "PASS" : "FAIL"));
+        }
+        sloMet = anyTraffic && allMet;
+    }
+
+    public boolean isSloMet() {
+        return sloMet;
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
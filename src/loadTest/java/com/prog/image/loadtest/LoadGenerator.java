@@ -0,0 +1,265 @@
+package com.prog.image.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are issued on a fixed arrival schedule regardless of
+ * how fast earlier ones complete, and latency is measured from the scheduled start time so
+ * a stalled server is not hidden by coordinated omission.
+ * <p>
+ * convert-image rewrites the stored file, so it draws from its own pool of images and each
+ * image is converted by one request at a time; retrieve only reads images nothing converts.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadTestSettings settings;
+    private final ImageApiClient client;
+    private final Random random = new Random();
+    private final List<Integer> storedIds = new CopyOnWriteArrayList<>();
+    private final Map<Integer, String> convertFormats = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Integer> idleConvertIds = new ConcurrentLinkedQueue<>();
+    private final Semaphore inFlight;
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> dropped = new EnumMap<>(Endpoint.class);
+    // Successes that finished before the arrival window closed; the basis for throughput.
+    private final Map<Endpoint, AtomicLong> completedInWindow = new EnumMap<>(Endpoint.class);
+    private volatile boolean recording = false;
+    private volatile long drainNanos = 0;
+
+    public LoadGenerator(LoadTestSettings settings, ImageApiClient client) {
+        this.settings = settings;
+        this.client = client;
+        this.inFlight = new Semaphore(settings.getMaxInFlight());
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+            dropped.put(endpoint, new AtomicLong());
+            completedInWindow.put(endpoint, new AtomicLong());
+        }
+    }
+
+    /**
+     * Uploads the initial images for retrieve requests and the pool convert-image requests use.
+     */
+    public void seed() throws IOException {
+        for (int i = 0; i < settings.getSeedImages(); i++) {
+            storedIds.addAll(seedUpload());
+        }
+        for (int i = 0; i < settings.getConvertPoolSize(); i++) {
+            for (int id : seedUpload()) {
+                convertFormats.put(id, "jpg");
+                idleConvertIds.add(id);
+            }
+        }
+        log.info("Seeded {} images for retrieve and {} for convert-image", storedIds.size(), convertFormats.size());
+    }
+
+    private List<Integer> seedUpload() throws IOException {
+        HttpResponse<byte[]> response = client.send(client.request(Endpoint.UPLOAD, -1, null)).join();
+        if (response.statusCode() != 200) {
+            throw new IOException("Seeding upload failed with status " + response.statusCode());
+        }
+        return client.uploadedIds(response.body());
+    }
+
+    /**
+     * Drives the configured mix for the given duration.
+     * @param seconds How long to generate load.
+     * @param record Whether results count towards the report; warm-up runs are discarded.
+     * @return The length of the arrival window in nanoseconds, excluding the wait for in-flight requests.
+     */
+    public long run(int seconds, boolean record) {
+        recording = record;
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getRate());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            issue(pickEndpoint(), scheduled, end);
+        }
+
+        // Let requests issued within the window finish before the caller reads the histograms
+        long drainStart = System.nanoTime();
+        inFlight.acquireUninterruptibly(settings.getMaxInFlight());
+        inFlight.release(settings.getMaxInFlight());
+        drainNanos = System.nanoTime() - drainStart;
+        return end - start;
+    }
+
+    public long getDrainNanos() {
+        return drainNanos;
+    }
+
+    public Histogram latency(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    public long errors(Endpoint endpoint) {
+        return errors.get(endpoint).get();
+    }
+
+    public long dropped(Endpoint endpoint) {
+        return dropped.get(endpoint).get();
+    }
+
+    public long completedInWindow(Endpoint endpoint) {
+        return completedInWindow.get(endpoint).get();
+    }
+
+    public void reset() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.get(endpoint).reset();
+            errors.get(endpoint).set(0);
+            dropped.get(endpoint).set(0);
+            completedInWindow.get(endpoint).set(0);
+        }
+    }
+
+    private void issue(Endpoint endpoint, long scheduled, long windowEnd) {
+        if (!inFlight.tryAcquire()) {
+            drop(endpoint);
+            return;
+        }
+
+        int storedId = -1;
+        String fmt = client.targetFormat(null, random);
+        if (endpoint == Endpoint.RETRIEVE) {
+            // Snapshot, since failed ids are removed concurrently
+            Integer[] ids = storedIds.toArray(new Integer[0]);
+            if (ids.length == 0) {
+                inFlight.release();
+                drop(endpoint);
+                return;
+            }
+            storedId = ids[random.nextInt(ids.length)];
+        } else if (endpoint == Endpoint.CONVERT_IMAGE) {
+            // Every pool image is being converted; the server is not keeping up
+            Integer id = idleConvertIds.poll();
+            if (id == null) {
+                inFlight.release();
+                drop(endpoint);
+                return;
+            }
+            storedId = id;
+            fmt = client.targetFormat(convertFormats.get(id), random);
+        }
+
+        int id = storedId;
+        String targetFmt = fmt;
+        boolean record = recording;
+        client.send(client.request(endpoint, id, targetFmt)).whenComplete((response, failure) -> {
+            try {
+                long completed = System.nanoTime();
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(completed - scheduled);
+                boolean ok = failure == null && response.statusCode() == 200;
+                release(endpoint, id, targetFmt, ok);
+                if (ok && endpoint == Endpoint.UPLOAD) {
+                    storedIds.addAll(client.uploadedIds(response.body()));
+                }
+                if (!record) {
+                    return;
+                }
+                if (ok) {
+                    latencies.get(endpoint).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+                    if (completed < windowEnd) {
+                        completedInWindow.get(endpoint).incrementAndGet();
+                    }
+                } else {
+                    errors.get(endpoint).incrementAndGet();
+                }
+            } catch (IOException e) {
+                log.warn("Unreadable upload response: {}", e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // Returns a stored image to its pool, or retires it when the request failed.
+    private void release(Endpoint endpoint, int id, String fmt, boolean ok) {
+        if (endpoint == Endpoint.RETRIEVE && !ok) {
+            storedIds.remove(Integer.valueOf(id));
+        } else if (endpoint == Endpoint.CONVERT_IMAGE) {
+            if (ok) {
+                convertFormats.put(id, fmt);
+                idleConvertIds.add(id);
+            } else {
+                convertFormats.remove(id);
+            }
+        }
+    }
+
+    private void drop(Endpoint endpoint) {
+        if (recording) {
+            dropped.get(endpoint).incrementAndGet();
+        }
+    }
+
+    private Endpoint pickEndpoint() {
+        Map<Endpoint, Integer> mix = settings.getMix();
+        int total = 0;
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            if (available(entry.getKey())) {
+                total += entry.getValue();
+            }
+        }
+        if (total <= 0) {
+            return Endpoint.UPLOAD;
+        }
+
+        int pick = random.nextInt(total);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            if (!available(entry.getKey())) {
+                continue;
+            }
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        return Endpoint.UPLOAD;
+    }
+
+    // Endpoints whose image pool has been exhausted by errors are left out of the mix.
+    private boolean available(Endpoint endpoint) {
+        switch (endpoint) {
+            case RETRIEVE:
+                return !storedIds.isEmpty();
+            case CONVERT_IMAGE:
+                return !convertFormats.isEmpty();
+            default:
+                return true;
+        }
+    }
+}
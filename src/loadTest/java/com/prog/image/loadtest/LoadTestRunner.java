@@ -0,0 +1,78 @@
+package com.prog.image.loadtest;
+
+import com.prog.image.ProgImageApp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * Entry point for {@code ./gradlew loadTest}. Starts the application in-process with the
+ * {@code loadtest} profile (H2 in PostgreSQL mode) unless {@code loadtest.base-url} points at a
+ * running instance, then seeds images, warms up, measures and writes the latency report.
+ * In-process runs start from an empty {@code uploads} directory, matching the fresh database.
+ * Exits with status 1 when any endpoint misses the latency or error-rate SLO.
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        ConfigurableApplicationContext context = null;
+        String baseUrl = settings.getBaseUrl();
+
+        if (baseUrl.isEmpty()) {
+            // The in-memory database starts empty, so images left by earlier runs are orphans
+            clearUploads(Paths.get("uploads"));
+
+            // Runners (including the OpenCV warm-up) complete before run() returns
+            context = new SpringApplicationBuilder(ProgImageApp.class)
+                    .profiles("loadtest")
+                    .run(args);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        boolean sloMet;
+        try {
+            log.info("Load testing {} with {}", baseUrl, settings);
+            LoadGenerator generator = new LoadGenerator(settings, new ImageApiClient(baseUrl, settings.getImageSize()));
+            generator.seed();
+
+            if (settings.getWarmUpSeconds() > 0) {
+                generator.run(settings.getWarmUpSeconds(), false);
+                generator.reset();
+            }
+            long windowNanos = generator.run(settings.getDurationSeconds(), true);
+
+            LatencyReport report = new LatencyReport(settings, generator, windowNanos);
+            System.out.println(report);
+            Files.write(Paths.get(settings.getReportFile()), report.toString().getBytes(StandardCharsets.UTF_8));
+            log.info("Report written to {}", Paths.get(settings.getReportFile()).toAbsolutePath());
+            sloMet = report.isSloMet();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+
+        System.exit(sloMet ? 0 : 1);
+    }
+
+    private static void clearUploads(Path uploads) throws IOException {
+        if (!Files.isDirectory(uploads)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(uploads)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("Cleared images left in {} by earlier runs", uploads.toAbsolutePath());
+    }
+}
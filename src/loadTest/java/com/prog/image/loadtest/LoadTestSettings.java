@@ -0,0 +1,93 @@
+package com.prog.image.loadtest;
+
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from {@code loadtest.*} system properties.
+ */
+@Getter
+public class LoadTestSettings {
+
+    // Target an already running instance instead of starting the app in-process.
+    private final String baseUrl;
+    private final double rate;
+    private final int warmUpSeconds;
+    private final int durationSeconds;
+    private final int seedImages;
+    // Images reserved for convert-image, each converted by at most one request at a time.
+    private final int convertPoolSize;
+    private final int imageSize;
+    private final int maxInFlight;
+    private final double sloP99Ms;
+    // Share of failed or dropped requests an endpoint may have and still pass.
+    private final double sloMaxErrorRate;
+    private final String reportFile;
+    private final Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+
+    public LoadTestSettings() {
+        this.baseUrl = System.getProperty("loadtest.base-url", "");
+        this.rate = doubleProperty("loadtest.rate", 50);
+        this.warmUpSeconds = intProperty("loadtest.warm-up-seconds", 10);
+        this.durationSeconds = intProperty("loadtest.duration-seconds", 60);
+        this.seedImages = intProperty("loadtest.seed-images", 20);
+        this.convertPoolSize = intProperty("loadtest.convert-pool-size", 50);
+        this.imageSize = intProperty("loadtest.image-size", 512);
+        this.maxInFlight = intProperty("loadtest.max-in-flight", 1000);
+        this.sloP99Ms = doubleProperty("loadtest.slo-p99-ms", 500);
+        this.sloMaxErrorRate = doubleProperty("loadtest.slo-max-error-rate", 0.001);
+        this.reportFile = System.getProperty("loadtest.report-file", "report.txt");
+
+        mix.put(Endpoint.UPLOAD, intProperty("loadtest.mix.upload", 10));
+        mix.put(Endpoint.RETRIEVE, intProperty("loadtest.mix.retrieve", 50));
+        mix.put(Endpoint.CONVERT_IMAGE, intProperty("loadtest.mix.convert-image", 20));
+        mix.put(Endpoint.CONVERT_FILE, intProperty("loadtest.mix.convert-file", 20));
+
+        require(rate > 0 && rate <= 1_000_000, "loadtest.rate must be positive and at most 1000000");
+        require(warmUpSeconds >= 0, "loadtest.warm-up-seconds must not be negative");
+        require(durationSeconds >= 1, "loadtest.duration-seconds must be at least 1");
+        require(seedImages >= 0, "loadtest.seed-images must not be negative");
+        require(convertPoolSize >= 0, "loadtest.convert-pool-size must not be negative");
+        require(imageSize >= 1, "loadtest.image-size must be at least 1");
+        require(maxInFlight >= 1, "loadtest.max-in-flight must be at least 1");
+        require(sloP99Ms > 0, "loadtest.slo-p99-ms must be positive");
+        require(sloMaxErrorRate >= 0 && sloMaxErrorRate <= 1, "loadtest.slo-max-error-rate must be between 0 and 1");
+        require(mix.values().stream().allMatch(weight -> weight >= 0), "loadtest.mix.* weights must not be negative");
+        require(mix.values().stream().mapToInt(Integer::intValue).sum() > 0, "loadtest.mix.* weights must add up to more than zero");
+        require(convertPoolSize >= 1 || mix.get(Endpoint.CONVERT_IMAGE) == 0,
+                "loadtest.convert-pool-size must be at least 1 when loadtest.mix.convert-image is set");
+    }
+
+    // Malformed values fail the run instead of silently falling back to the default.
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer, got '" + value + "'", e);
+        }
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number, got '" + value + "'", e);
+        }
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rate=%.1f req/s, warm-up=%ds, duration=%ds, seed-images=%d, convert-pool-size=%d, image-size=%d, mix=%s",
+                rate, warmUpSeconds, durationSeconds, seedImages, convertPoolSize, imageSize, mix);
+    }
+}
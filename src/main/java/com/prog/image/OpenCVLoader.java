@@ -2,15 +2,34 @@ package com.prog.image;
 
 import com.prog.image.config.OpenCVConfig;
 import lombok.extern.slf4j.Slf4j;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 @Component
 @Slf4j
@@ -28,32 +47,156 @@ public class OpenCVLoader {
         try {
             // Load the OpenCV native library from the resources folder
             String libName = System.mapLibraryName(openCVConfig.getFileName());
-            InputStream libInputStream = getClass().getClassLoader().getResourceAsStream(libName);
 
-            if (libInputStream == null) {
-                throw new IllegalStateException("OpenCV library not found in resources folder");
+            // Reuse the library extracted by a previous boot when its checksum still matches
+            Path libFile = extractLibrary(libName, getClass().getClassLoader());
+
+            // Load the native library from the cache directory
+            System.load(libFile.toAbsolutePath().toString());
+
+            log.info("OpenCV library loaded successfully from {}", libFile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load OpenCV library", e);
+        }
+    }
+
+    // A <libName>.checksum sidecar records the fingerprint of the extracted copy: the CRC-32 and size
+    // of the jar entry when the library is bundled in a jar (verified while copying), otherwise its
+    // SHA-256. A hit in a jar only reads the central directory; the cached copy is never re-hashed,
+    // since the directory is owner-only.
+    Path extractLibrary(String libName, ClassLoader classLoader) throws IOException {
+        Path cacheDir = secureCacheDir(Paths.get(openCVConfig.getLibraryCacheDir()));
+        Path libFile = cacheDir.resolve(libName);
+        Path checksumFile = cacheDir.resolve(libName + ".checksum");
+
+        URL libUrl = classLoader.getResource(libName);
+        if (libUrl == null) {
+            throw new IllegalStateException("OpenCV library not found in resources folder");
+        }
+        JarEntry jarEntry = jarEntry(libUrl);
+
+        if (Files.isRegularFile(libFile, LinkOption.NOFOLLOW_LINKS) && Files.isRegularFile(checksumFile, LinkOption.NOFOLLOW_LINKS)) {
+            String cached = new String(Files.readAllBytes(checksumFile), StandardCharsets.US_ASCII).trim();
+            String bundled = jarEntry != null
+                    ? fingerprint(jarEntry.getCrc(), jarEntry.getSize())
+                    : copyResource(libUrl, null, OutputStream.nullOutputStream());
+            if (bundled.equals(cached)) {
+                log.info("Reusing cached OpenCV library {} ({})", libFile, cached);
+                return libFile;
             }
+        }
 
-            // Copy the library to a temporary location
-            File tempLibFile = File.createTempFile("lib", libName);
-            tempLibFile.deleteOnExit();
-            Files.copy(libInputStream, tempLibFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        // Write next to the target and move into place so a concurrent boot never loads a partial file
+        Files.deleteIfExists(checksumFile);
+        Path tempLibFile = Files.createTempFile(cacheDir, "lib", ".tmp");
+        Path tempChecksumFile = Files.createTempFile(cacheDir, "lib", ".tmp");
+        try {
+            String checksum;
+            try (OutputStream out = Files.newOutputStream(tempLibFile)) {
+                checksum = copyResource(libUrl, jarEntry, out);
+            }
+            Files.move(tempLibFile, libFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Files.write(tempChecksumFile, checksum.getBytes(StandardCharsets.US_ASCII));
+            Files.move(tempChecksumFile, checksumFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("Extracted OpenCV library to {} ({})", libFile, checksum);
+            return libFile;
+        } finally {
+            Files.deleteIfExists(tempLibFile);
+            Files.deleteIfExists(tempChecksumFile);
+        }
+    }
 
-            // Load the native library from the temporary file
-            System.load(tempLibFile.getAbsolutePath());
+    // The jar entry holding the library, or null when it is not in a jar or the jar lacks a CRC.
+    private JarEntry jarEntry(URL libUrl) throws IOException {
+        URLConnection connection = libUrl.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return null;
+        }
 
-            log.info("OpenCV library loaded successfully from resources!");
-            String[] extensions = {".jpg", ".jpeg", ".png", ".bmp", ".tiff", ".tif",
-                    ".webp", ".ppm", ".pgm", ".pbm", ".sr", ".ras",
-                    ".jp2", ".exr", ".hdr"};
+        JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+        if (entry == null || entry.getCrc() == -1 || entry.getSize() == -1) {
+            return null;
+        }
+        return entry;
+    }
 
-            for (String ext : extensions) {
-                boolean supported = Imgcodecs.haveImageWriter(ext);
-                log.info("{} format is {}",ext,supported ? "supported" : "not supported");
+    // Streams the bundled library into out and returns its fingerprint. A jar entry is checked
+    // against its recorded CRC-32, which costs far less than hashing a library this size.
+    private String copyResource(URL libUrl, JarEntry jarEntry, OutputStream out) throws IOException {
+        if (jarEntry != null) {
+            CRC32 crc = new CRC32();
+            long size;
+            try (InputStream libInputStream = libUrl.openStream()) {
+                size = new CheckedInputStream(libInputStream, crc).transferTo(out);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to load OpenCV library", e);
+
+            String checksum = fingerprint(crc.getValue(), size);
+            if (!checksum.equals(fingerprint(jarEntry.getCrc(), jarEntry.getSize()))) {
+                throw new IOException("OpenCV library in jar is corrupt: " + checksum);
+            }
+            return checksum;
+        }
+
+        MessageDigest digest = sha256();
+        try (InputStream libInputStream = libUrl.openStream()) {
+            new DigestInputStream(libInputStream, digest).transferTo(out);
+        }
+
+        StringBuilder hexString = new StringBuilder("sha256 ");
+        for (byte b : digest.digest()) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+
+    private String fingerprint(long crc, long size) {
+        return String.format("crc32 %08x size %d", crc, size);
+    }
+
+    // The cached library is loaded into this process, so only the current user may be able to replace it
+    Path secureCacheDir(Path cacheDir) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        Files.createDirectories(cacheDir.toAbsolutePath().getParent());
+        try {
+            if (posix) {
+                Files.createDirectory(cacheDir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectory(cacheDir);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Created by an earlier or concurrent boot; the checks below decide whether it can be used
+        }
+
+        if (!Files.isDirectory(cacheDir, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IllegalStateException("OpenCV library cache " + cacheDir + " is not a directory");
+        }
+
+        // Ownership and mode bits are only checked where they are POSIX semantics; on Windows an
+        // elevated process creates directories owned by Administrators rather than the user
+        if (posix) {
+            UserPrincipal currentUser = FileSystems.getDefault().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            if (!currentUser.equals(Files.getOwner(cacheDir, LinkOption.NOFOLLOW_LINKS))) {
+                throw new IllegalStateException("OpenCV library cache " + cacheDir + " is not owned by " + currentUser.getName());
+            }
+
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(cacheDir, LinkOption.NOFOLLOW_LINKS);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new IllegalStateException("OpenCV library cache " + cacheDir + " is group or world writable");
+            }
+        }
+
+        return cacheDir;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
@@ -0,0 +1,118 @@
+package com.prog.image;
+
+import com.prog.image.config.OpenCVConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes and decodes a synthetic image in every configured format before the application
+ * accepts traffic, so native codec initialization is not paid by the first requests.
+ * Exposed as the {@code warmUp} health indicator, which the readiness group includes.
+ */
+@Component("warmUp")
+@Slf4j
+public class OpenCVWarmUp implements ApplicationRunner, HealthIndicator {
+
+    private final OpenCVConfig openCVConfig;
+
+    private final List<String> supportedFormats = new ArrayList<>();
+    private final List<String> unsupportedFormats = new ArrayList<>();
+    private volatile boolean complete = false;
+    private volatile long durationMs = 0;
+
+    @Autowired
+    OpenCVWarmUp(OpenCVConfig openCVConfig) {
+        this.openCVConfig = openCVConfig;
+    }
+
+    /**
+     * Runs once the context is refreshed (after {@link OpenCVLoader} has loaded the native library)
+     * and before Spring Boot publishes the ready event.
+     * @param args The application arguments.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!openCVConfig.isWarmUpEnabled()) {
+            log.info("OpenCV warm-up disabled");
+            complete = true;
+            return;
+        }
+
+        if (openCVConfig.getWarmUpIterations() < 1 || openCVConfig.getWarmUpImageSize() < 1) {
+            throw new IllegalStateException("opencv.warm-up-iterations and opencv.warm-up-image-size must be at least 1");
+        }
+
+        long start = System.nanoTime();
+        int size = openCVConfig.getWarmUpImageSize();
+        Mat image = new Mat(size, size, CvType.CV_8UC3);
+        Core.randu(image, new Scalar(0, 0, 0), new Scalar(256, 256, 256));
+
+        try {
+            for (String fmt : openCVConfig.getWarmUpFormats()) {
+                if (warmUpFormat(image, fmt)) {
+                    supportedFormats.add(fmt);
+                } else {
+                    unsupportedFormats.add(fmt);
+                }
+            }
+        } finally {
+            image.release();
+        }
+
+        durationMs = (System.nanoTime() - start) / 1_000_000;
+        complete = true;
+        log.info("OpenCV warm-up finished in {} ms. Supported formats: {}, not supported: {}",
+                durationMs, supportedFormats, unsupportedFormats);
+    }
+
+    private boolean warmUpFormat(Mat image, String fmt) {
+        MatOfByte encoded = new MatOfByte();
+        try {
+            for (int i = 0; i < openCVConfig.getWarmUpIterations(); i++) {
+                if (!Imgcodecs.imencode("." + fmt, image, encoded)) {
+                    return false;
+                }
+
+                Mat decoded = Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_COLOR);
+                boolean decodedOk = !decoded.empty();
+                decoded.release();
+                if (!decodedOk) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("OpenCV warm-up failed for {} format: {}", fmt, e.getMessage());
+            return false;
+        } finally {
+            encoded.release();
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!complete) {
+            return Health.outOfService().withDetail("warmUp", "in progress").build();
+        }
+
+        return Health.up()
+                .withDetail("durationMs", durationMs)
+                .withDetail("supportedFormats", supportedFormats)
+                .withDetail("unsupportedFormats", unsupportedFormats)
+                .build();
+    }
+}
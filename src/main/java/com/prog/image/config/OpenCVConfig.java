@@ -8,6 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 @Slf4j
 @Data
 @Configuration
@@ -16,4 +21,20 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "opencv")
 public class OpenCVConfig {
     private final String fileName = "opencv_java451";
+
+    // Defaults for the opencv.* properties live here only; application.properties overrides them.
+
+    // Directory the native library is extracted to; reused across restarts while its checksum matches.
+    // Must be owned by the service user and not group or world writable.
+    private String libraryCacheDir = Paths.get(System.getProperty("java.io.tmpdir"),
+            "prog-image-opencv-" + System.getProperty("user.name")).toString();
+
+    // Warm-up encodes/decodes a synthetic image in each format before the app reports ready.
+    // Iterations and image size must be at least 1.
+    private boolean warmUpEnabled = true;
+    private int warmUpIterations = 3;
+    private int warmUpImageSize = 256;
+    private List<String> warmUpFormats = new ArrayList<>(Arrays.asList(
+            "jpg", "png", "bmp", "tiff", "webp", "ppm", "pgm", "pbm",
+            "sr", "jp2", "exr", "hdr"));
 }
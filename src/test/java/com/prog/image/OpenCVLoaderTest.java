@@ -0,0 +1,94 @@
+package com.prog.image;
+
+import com.prog.image.config.OpenCVConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OpenCVLoaderTest {
+
+    private static final String LIB_NAME = "libopencv_test.so";
+
+    @TempDir
+    Path tempDir;
+
+    private Path resourceDir;
+    private Path cacheDir;
+    private OpenCVLoader loader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        resourceDir = Files.createDirectory(tempDir.resolve("resources"));
+        cacheDir = tempDir.resolve("cache");
+
+        OpenCVConfig config = new OpenCVConfig();
+        config.setLibraryCacheDir(cacheDir.toString());
+        loader = new OpenCVLoader(config);
+    }
+
+    @Test
+    void reusesCachedLibraryWhenChecksumMatches() throws Exception {
+        bundle("native library v1".getBytes());
+        Path libFile = extract();
+
+        FileTime marker = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(libFile, marker);
+
+        assertEquals(libFile, extract());
+        assertEquals(marker, Files.getLastModifiedTime(libFile));
+    }
+
+    @Test
+    void reExtractsWhenBundledLibraryChanges() throws Exception {
+        bundle("native library v1".getBytes());
+        extract();
+
+        byte[] updated = "native library v2".getBytes();
+        bundle(updated);
+        Path libFile = extract();
+
+        assertArrayEquals(updated, Files.readAllBytes(libFile));
+    }
+
+    @Test
+    void rejectsGroupWritableCacheDirectory() throws Exception {
+        Files.createDirectory(cacheDir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Files.setPosixFilePermissions(cacheDir, PosixFilePermissions.fromString("rwxrwx---"));
+
+        assertThrows(IllegalStateException.class, () -> loader.secureCacheDir(cacheDir));
+    }
+
+    @Test
+    void rejectsSymlinkedCacheDirectory() throws Exception {
+        Path target = Files.createDirectory(tempDir.resolve("target"),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Files.createSymbolicLink(cacheDir, target);
+
+        assertThrows(IllegalStateException.class, () -> loader.secureCacheDir(cacheDir));
+    }
+
+    private void bundle(byte[] content) throws Exception {
+        Files.write(resourceDir.resolve(LIB_NAME), content);
+    }
+
+    private Path extract() throws Exception {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{resourceDir.toUri().toURL()}, null)) {
+            return loader.extractLibrary(LIB_NAME, classLoader);
+        }
+    }
+}